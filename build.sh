@@ -0,0 +1,61 @@
+#!/bin/sh
+# Builds the Dungeon Queue System into build/ and produces an AppCDS archive for fast startup.
+#
+#   build/lfg.jar   runnable jar (Main-Class com.lfg.Main)
+#   build/lfg.jsa   dynamic class-data-sharing archive recorded from a short training run
+#   build/lfg       launcher that runs the jar with the archive
+#
+# Usage: ./build.sh [--benchmark]
+#   --benchmark  also compares time-to-first-party with and without the archive, and with the
+#                rendering cache switched off
+set -e
+
+cd "$(dirname "$0")"
+BUILD="$(pwd)/build"
+
+# Answers to Main's prompts: n, t, h, d, t1, t2, then the two "press any key" pauses
+TRAINING_INPUT='2\n1\n1\n3\n1\n1\n\n\n'
+
+rm -rf "$BUILD"
+mkdir -p "$BUILD/classes"
+
+echo "Compiling..."
+javac -d "$BUILD/classes" $(find src/main/java -name '*.java')
+printf 'Main-Class: com.lfg.Main\n' > "$BUILD/manifest.txt"
+jar --create --file "$BUILD/lfg.jar" --manifest "$BUILD/manifest.txt" -C "$BUILD/classes" .
+
+echo "Recording AppCDS archive..."
+printf "$TRAINING_INPUT" | java -XX:ArchiveClassesAtExit="$BUILD/lfg.jsa" -jar "$BUILD/lfg.jar" > /dev/null
+
+cat > "$BUILD/lfg" <<'LAUNCHER'
+#!/bin/sh
+# Runs the Dungeon Queue System with its AppCDS archive (falls back to a normal start if unusable)
+DIR="$(cd "$(dirname "$0")" && pwd)"
+exec java -XX:SharedArchiveFile="$DIR/lfg.jsa" -Xshare:auto $JAVA_OPTS -jar "$DIR/lfg.jar" "$@"
+LAUNCHER
+chmod +x "$BUILD/lfg"
+
+echo "Built $BUILD/lfg"
+
+# Prints the mean "JVM start to first party" over BENCHMARK_RUNS piped runs of the given command
+BENCHMARK_RUNS=5
+measure() {
+    label="$1"
+    shift
+    total=0
+    i=0
+    while [ $i -lt $BENCHMARK_RUNS ]; do
+        ms=$(printf "$TRAINING_INPUT" | "$@" | sed 's/\x1b\[[0-9;]*m//g' | awk '/JVM start to first party/ { print $(NF-1) }')
+        total=$((total + ms))
+        i=$((i + 1))
+    done
+    echo "$label: $((total / BENCHMARK_RUNS)) ms (mean of $BENCHMARK_RUNS runs)"
+}
+
+if [ "$1" = "--benchmark" ]; then
+    echo
+    echo "JVM start to first party:"
+    measure "  No AppCDS archive       " java -Dlfg.startup.benchmark=true -jar "$BUILD/lfg.jar"
+    measure "  AppCDS archive          " env JAVA_OPTS="-Dlfg.startup.benchmark=true" "$BUILD/lfg"
+    measure "  AppCDS, render cache off" env JAVA_OPTS="-Dlfg.startup.benchmark=true -Dlfg.render.cache=false" "$BUILD/lfg"
+fi
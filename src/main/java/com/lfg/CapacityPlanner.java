@@ -0,0 +1,342 @@
+package com.lfg;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static com.lfg.TextFormatter.*;
+
+/**
+ * CapacityPlanner class for sizing the dungeon fleet.
+ * This class is responsible for:
+ * - Expanding parameter ranges for n, t, h, d, t1 and t2 into configurations
+ * - Simulating each configuration with the same party rules as DungeonManager, in virtual time
+ * - Fanning the simulations out across all cores using the common ForkJoinPool
+ * - Reporting throughput, mean and p99 wait, and idle players, highlighting the Pareto frontier
+ *
+ * Usage: CapacityPlanner [n=1-10] [t=10-50:10] [h=10] [d=30] [t1=1] [t2=1-15] [runs=20] [seed=42] [--all]
+ * Each range is "value", "from-to" or "from-to:step".
+ */
+public class CapacityPlanner {
+    private static final String USAGE =
+            "Usage: CapacityPlanner [n=1-10] [t=10] [h=10] [d=30] [t1=1] [t2=15] [runs=20] [seed=42] [--all]";
+
+    /**
+     * An inclusive integer range with a step, parsed from "value", "from-to" or "from-to:step".
+     */
+    static final class Range {
+        final int from;
+        final int to;
+        final int step;
+
+        Range(int from, int to, int step) {
+            if (from > to || step <= 0) {
+                throw new IllegalArgumentException("Invalid range " + from + "-" + to + ":" + step);
+            }
+            this.from = from;
+            this.to = to;
+            this.step = step;
+        }
+
+        static Range parse(String text) {
+            int step = 1;
+            int colon = text.indexOf(':');
+            if (colon >= 0) {
+                step = Integer.parseInt(text.substring(colon + 1));
+                text = text.substring(0, colon);
+            }
+
+            int dash = text.indexOf('-', 1);
+            if (dash < 0) {
+                int value = Integer.parseInt(text);
+                return new Range(value, value, step);
+            }
+            return new Range(Integer.parseInt(text.substring(0, dash)), Integer.parseInt(text.substring(dash + 1)), step);
+        }
+
+        int size() {
+            return (to - from) / step + 1;
+        }
+
+        int get(int index) {
+            return from + index * step;
+        }
+    }
+
+    /**
+     * The outcome of simulating one configuration.
+     */
+    static final class Result {
+        final int instances;
+        final int tanks;
+        final int healers;
+        final int dps;
+        final int minTime;
+        final int maxTime;
+
+        final int parties;
+        final double throughput; // parties per minute
+        final double meanWait;   // seconds
+        final int p99Wait;       // seconds
+        final int idlePlayers;
+
+        boolean pareto;
+
+        Result(int instances, int tanks, int healers, int dps, int minTime, int maxTime,
+               int parties, double throughput, double meanWait, int p99Wait, int idlePlayers) {
+            this.instances = instances;
+            this.tanks = tanks;
+            this.healers = healers;
+            this.dps = dps;
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+            this.parties = parties;
+            this.throughput = throughput;
+            this.meanWait = meanWait;
+            this.p99Wait = p99Wait;
+            this.idlePlayers = idlePlayers;
+        }
+
+        /**
+         * Checks whether this result is at least as good as the other on every objective
+         * (higher throughput, lower p99 wait, fewer idle players, fewer instances) and
+         * strictly better on at least one.
+         */
+        boolean dominates(Result other) {
+            boolean noWorse = throughput >= other.throughput && p99Wait <= other.p99Wait
+                    && idlePlayers <= other.idlePlayers && instances <= other.instances;
+            boolean better = throughput > other.throughput || p99Wait < other.p99Wait
+                    || idlePlayers < other.idlePlayers || instances < other.instances;
+            return noWorse && better;
+        }
+    }
+
+    /**
+     * The entry point of the planner.
+     *
+     * @param args Parameter ranges and options, see the class documentation
+     */
+    public static void main(String[] args) {
+        try {
+            Range instances = new Range(1, 10, 1);
+            Range tanks = new Range(10, 10, 1);
+            Range healers = new Range(10, 10, 1);
+            Range dps = new Range(30, 30, 1);
+            Range minTimes = new Range(1, 1, 1);
+            Range maxTimes = new Range(15, 15, 1);
+            int runs = 20;
+            long seed = 42;
+            boolean printAll = false;
+
+            for (String arg : args) {
+                if (arg.equals("--all")) {
+                    printAll = true;
+                    continue;
+                }
+
+                int equals = arg.indexOf('=');
+                if (equals < 0) {
+                    throw new IllegalArgumentException("Unrecognized argument: " + arg);
+                }
+                String value = arg.substring(equals + 1);
+                switch (arg.substring(0, equals)) {
+                    case "n":
+                        instances = Range.parse(value);
+                        break;
+                    case "t":
+                        tanks = Range.parse(value);
+                        break;
+                    case "h":
+                        healers = Range.parse(value);
+                        break;
+                    case "d":
+                        dps = Range.parse(value);
+                        break;
+                    case "t1":
+                        minTimes = Range.parse(value);
+                        break;
+                    case "t2":
+                        maxTimes = Range.parse(value);
+                        break;
+                    case "runs":
+                        runs = Integer.parseInt(value);
+                        break;
+                    case "seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unrecognized argument: " + arg);
+                }
+            }
+
+            if (instances.from < 1 || tanks.from < 0 || healers.from < 0 || dps.from < 0 || minTimes.from < 1 || runs < 1) {
+                throw new IllegalArgumentException("n, t1 and runs must be at least 1; t, h and d must not be negative");
+            }
+
+            long start = System.nanoTime();
+            Result[] results = plan(instances, tanks, healers, dps, minTimes, maxTimes, runs, seed);
+            markParetoFrontier(results);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+
+            printResults(results, printAll);
+            System.out.println("\nSimulated " + results.length + " configurations x " + runs + " runs in "
+                    + TIME_COLOR + elapsedMillis + " ms" + RESET);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            System.out.println(USAGE);
+        }
+    }
+
+    /**
+     * Simulates every valid combination of the given ranges in parallel.
+     * Combinations where t2 is below t1 are skipped.
+     *
+     * @return The results, in the order the configurations were enumerated
+     */
+    static Result[] plan(Range instances, Range tanks, Range healers, Range dps,
+                         Range minTimes, Range maxTimes, int runs, long seed) {
+        long total = (long) instances.size() * tanks.size() * healers.size() * dps.size() * minTimes.size() * maxTimes.size();
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many configurations: " + total);
+        }
+
+        return IntStream.range(0, (int) total).parallel()
+                .mapToObj(index -> {
+                    // Decode the configuration index as a mixed-radix number over the ranges
+                    int rest = index;
+                    int maxTime = maxTimes.get(rest % maxTimes.size()); rest /= maxTimes.size();
+                    int minTime = minTimes.get(rest % minTimes.size()); rest /= minTimes.size();
+                    int d = dps.get(rest % dps.size()); rest /= dps.size();
+                    int h = healers.get(rest % healers.size()); rest /= healers.size();
+                    int t = tanks.get(rest % tanks.size()); rest /= tanks.size();
+                    int n = instances.get(rest);
+
+                    if (maxTime < minTime) {
+                        return null;
+                    }
+                    return simulate(n, t, h, d, minTime, maxTime, runs, seed + index);
+                })
+                .filter(result -> result != null)
+                .toArray(Result[]::new);
+    }
+
+    /**
+     * Simulates one configuration in virtual time.
+     * All players are queued at time 0 and each party takes the instance that frees up
+     * first, which is the schedule DungeonManager converges to without its polling delays.
+     *
+     * @return The aggregated result over all runs
+     */
+    static Result simulate(int instances, int tanks, int healers, int dps, int minTime, int maxTime, int runs, long seed) {
+        int parties = DungeonManager.maxParties(tanks, healers, dps);
+        int idlePlayers = tanks + healers + dps - parties * 5;
+        if (parties == 0) {
+            return new Result(instances, tanks, healers, dps, minTime, maxTime, 0, 0, 0, 0, idlePlayers);
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        // Waits are whole seconds, so a per-second histogram gives the exact p99 in memory
+        // proportional to the makespan rather than to parties x runs
+        long[] waitCounts = new long[Math.max(1, maxTime)];
+        // Instances beyond the party count never get used
+        long[] freeAt = new long[Math.min(instances, parties)];
+        double throughputSum = 0;
+        long waitSum = 0;
+
+        for (int run = 0; run < runs; run++) {
+            Arrays.fill(freeAt, 0);
+            long makespan = 0;
+
+            for (int p = 0; p < parties; p++) {
+                // freeAt is a binary min-heap, so the root is the next instance to free up
+                long startTime = freeAt[0];
+                long finishTime = startTime + minTime + random.nextInt(maxTime - minTime + 1);
+                replaceRoot(freeAt, finishTime);
+
+                if (startTime >= waitCounts.length) {
+                    waitCounts = Arrays.copyOf(waitCounts, (int) Math.max(startTime + 1, 2L * waitCounts.length));
+                }
+                waitCounts[(int) startTime]++;
+                waitSum += startTime;
+                makespan = Math.max(makespan, finishTime);
+            }
+
+            throughputSum += parties * 60.0 / makespan;
+        }
+
+        long totalWaits = (long) parties * runs;
+        long p99Rank = (long) Math.ceil(totalWaits * 0.99);
+        int p99Wait = 0;
+        for (long seen = 0; p99Wait < waitCounts.length; p99Wait++) {
+            seen += waitCounts[p99Wait];
+            if (seen >= p99Rank) {
+                break;
+            }
+        }
+
+        return new Result(instances, tanks, healers, dps, minTime, maxTime, parties,
+                throughputSum / runs, (double) waitSum / totalWaits, p99Wait, idlePlayers);
+    }
+
+    /**
+     * Replaces the root of a binary min-heap and restores the heap order.
+     */
+    private static void replaceRoot(long[] heap, long value) {
+        int i = 0;
+        int half = heap.length >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heap.length && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (value <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+    }
+
+    /**
+     * Marks every result that is not dominated by any other result.
+     */
+    static void markParetoFrontier(Result[] results) {
+        IntStream.range(0, results.length).parallel().forEach(i -> {
+            Result candidate = results[i];
+            for (Result other : results) {
+                if (other.dominates(candidate)) {
+                    return;
+                }
+            }
+            candidate.pareto = true;
+        });
+    }
+
+    /**
+     * Prints the results table. Only the Pareto frontier is printed unless printAll is set.
+     */
+    private static void printResults(Result[] results, boolean printAll) {
+        System.out.println(formatHeader(printAll ? "Capacity Plan" : "Capacity Plan (Pareto frontier)"));
+        System.out.println(String.format("  %6s %6s %6s %6s %4s %4s %8s %12s %10s %9s %6s",
+                "n", "t", "h", "d", "t1", "t2", "parties", "parties/min", "mean wait", "p99 wait", "idle"));
+
+        int frontier = 0;
+        for (Result result : results) {
+            if (result.pareto) {
+                frontier++;
+            }
+            if (!printAll && !result.pareto) {
+                continue;
+            }
+
+            String row = String.format("%s %6d %6d %6d %6d %4d %4d %8d %12.2f %9.1fs %8ds %6d",
+                    result.pareto ? "*" : " ", result.instances, result.tanks, result.healers, result.dps,
+                    result.minTime, result.maxTime, result.parties, result.throughput,
+                    result.meanWait, result.p99Wait, result.idlePlayers);
+            System.out.println(result.pareto ? GUILD_MASTER_COLOR + row + RESET : row);
+        }
+
+        System.out.println("\n" + formatGuildMaster(frontier + " of " + results.length) + " configurations are on the Pareto frontier");
+    }
+}
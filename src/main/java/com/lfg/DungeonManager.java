@@ -1,7 +1,11 @@
 package com.lfg;
 
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static com.lfg.TextFormatter.*;
 
@@ -15,24 +19,74 @@ import static com.lfg.TextFormatter.*;
  * - Providing status updates on dungeon instances
  */
 public class DungeonManager {
+    // Delay between a run completing and its thread trying to form more parties (in milliseconds)
+    static final long REFORM_DELAY_MILLIS = 100;
+    
     private final int maxInstances;
     private final int minTime;
     private final int maxTime;
     
-    private int tankCount;
-    private int healerCount;
-    private int dpsCount;
+    // Role counts are only written while holding lock, but are volatile so
+    // that the SchedulerSampler can read them without taking the lock
+    private volatile int tankCount;
+    private volatile int healerCount;
+    private volatile int dpsCount;
+    
+    // Running counters for the SchedulerSampler (also written under lock)
+    private volatile int activeInstances;
+    private volatile long partiesStarted;
+    private volatile long partiesCompleted;
+    
+    // Seqlock-style version of the counters above: odd while a change is in progress,
+    // so the SchedulerSampler can retry instead of recording a half-applied change
+    private volatile long counterVersion;
     
     private boolean[] instanceActive;
     private int[] instancePartiesServed;
     private int[] instanceTotalTime;
     private int[] currentCompletionTimes;
+    private long[] instanceStartNanos;
+    
+    // Copy-on-write view of the instances for readers that must not take lock
+    private volatile InstanceStatusSnapshot statusSnapshot;
+    private long snapshotVersion;
     
     private CountDownLatch completionLatch;
     private final Object lock = new Object();
     private Random random = new Random();
     private boolean isFormingParties = false;
     
+    // Length of one simulated second; shortened by the StressHarness to get tiny t1/t2
+    private long millisPerSecond = 1000;
+    
+    // Queue state at queuePlayers() time, used by checkInvariants()
+    private int queuedTanks;
+    private int queuedHealers;
+    private int queuedDps;
+    private int queuedParties;
+    private int doubleCompletions;
+    
+    // Longest time an instance sat free while a party could have been formed (for lost wakeups)
+    private long formableIdleSinceNanos;
+    private long maxWakeupGapNanos;
+    
+    // Run timing for the throughput in the summary
+    private long queuedAtNanos;
+    private long lastCompletionNanos;
+    private volatile long firstPartyEpochMillis;
+    private Runnable firstPartyHook;
+    
+    // Optional rating-based matchmaking; null forms parties by role count only
+    private Matchmaker matchmaker;
+    private boolean matchWaitReported;
+    
+    // Optional sampler, stopped as soon as the run is over
+    private SchedulerSampler sampler;
+    
+    // Maximum number of parties claimed per critical section in formParties()
+    private final int batchSize;
+    private PrintStream out = System.out;
+    
     /**
      * Constructs a new DungeonManager with the specified parameters.
      * Initializes the instance tracking arrays and player counts.
@@ -42,7 +96,25 @@ public class DungeonManager {
      * @param maxTime Maximum time (in seconds) for a dungeon to complete
      */
     public DungeonManager(int maxInstances, int minTime, int maxTime) {
+        this(maxInstances, minTime, maxTime, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Constructs a new DungeonManager that claims at most batchSize parties per critical section.
+     * Smaller batches start the first parties sooner, larger batches take the lock less often.
+     * 
+     * @param maxInstances Maximum number of concurrent dungeon instances
+     * @param minTime Minimum time (in seconds) for a dungeon to complete
+     * @param maxTime Maximum time (in seconds) for a dungeon to complete
+     * @param batchSize Maximum number of parties formed per lock acquisition
+     */
+    public DungeonManager(int maxInstances, int minTime, int maxTime, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1: " + batchSize);
+        }
+        
         this.maxInstances = maxInstances;
+        this.batchSize = batchSize;
         this.minTime = minTime;
         this.maxTime = maxTime;
         
@@ -50,10 +122,15 @@ public class DungeonManager {
         this.instancePartiesServed = new int[maxInstances];
         this.instanceTotalTime = new int[maxInstances];
         this.currentCompletionTimes = new int[maxInstances];
+        this.instanceStartNanos = new long[maxInstances];
         
         this.tankCount = 0;
         this.healerCount = 0;
         this.dpsCount = 0;
+        
+        synchronized (lock) {
+            publishStatus();
+        }
     }
     
     /**
@@ -66,23 +143,36 @@ public class DungeonManager {
     public synchronized void queuePlayers(int tanks, int healers, int dps) {
         synchronized (lock) {
             // Store initial counts
+            beginCounterUpdate();
             this.tankCount = tanks;
             this.healerCount = healers;
             this.dpsCount = dps;
+            endCounterUpdate();
             
             // Calculate the maximum number of parties that can be formed
             int maxParties = calculateMaxParties();
             
+            this.queuedTanks = tanks;
+            this.queuedHealers = healers;
+            this.queuedDps = dps;
+            this.queuedParties = maxParties;
+            this.queuedAtNanos = System.nanoTime();
+            
+            if (matchmaker != null) {
+                matchmaker.queueRandomPlayers(tanks, healers, dps, random, simulatedNanos(queuedAtNanos));
+            }
+            
             // Initialize the completion latch with the maximum number of parties
             this.completionLatch = new CountDownLatch(maxParties);
+            publishStatus();
         
             // Print the initial queue
-            System.out.println("\nInitial queue:");
-            System.out.println(formatRole("Tanks") + ": " + tankCount);
-            System.out.println(formatRole("Healers") + ": " + healerCount);
-            System.out.println(formatRole("DPS") + ": " + dpsCount);
-            System.out.println("Maximum parties possible: " + maxParties);
-            System.out.println("Limiting factor: " + getPartyLimitingFactor());
+            out.println("\nInitial queue:");
+            out.println(formatRole("Tanks") + ": " + tankCount);
+            out.println(formatRole("Healers") + ": " + healerCount);
+            out.println(formatRole("DPS") + ": " + dpsCount);
+            out.println("Maximum parties possible: " + maxParties);
+            out.println("Limiting factor: " + getPartyLimitingFactor());
         }
     }
     
@@ -92,15 +182,38 @@ public class DungeonManager {
      * @return The maximum number of parties that can be formed
      */
     private int calculateMaxParties() {
+        return maxParties(tankCount, healerCount, dpsCount);
+    }
+    
+    /**
+     * Calculates the maximum number of parties that can be formed from the given role counts.
+     * 
+     * @param tanks Number of tanks
+     * @param healers Number of healers
+     * @param dps Number of DPS
+     * @return The maximum number of parties that can be formed
+     */
+    static int maxParties(int tanks, int healers, int dps) {
         // A party requires 1 tank, 1 healer, and 3 DPS
-        int maxPartiesFromTanks = tankCount;
-        int maxPartiesFromHealers = healerCount;
-        int maxPartiesFromDPS = dpsCount / 3;
+        int maxPartiesFromTanks = tanks;
+        int maxPartiesFromHealers = healers;
+        int maxPartiesFromDPS = dps / 3;
         
         // The limiting factor is the minimum of the three
         return Math.min(Math.min(maxPartiesFromTanks, maxPartiesFromHealers), maxPartiesFromDPS);
     }
     
+    /**
+     * Converts a System.nanoTime() value to simulated time since the players were queued,
+     * so the matchmaker widens its windows per simulated second.
+     * 
+     * @param nanoTime A System.nanoTime() value
+     * @return The simulated time (in nanoseconds)
+     */
+    private long simulatedNanos(long nanoTime) {
+        return (nanoTime - queuedAtNanos) * 1000 / millisPerSecond;
+    }
+    
     /**
      * Gets the limiting factor for party formation.
      * 
@@ -141,48 +254,106 @@ public class DungeonManager {
             boolean morePartiesToForm = true;
             
             while (morePartiesToForm) {
-                int availableInstance = -1;
-                boolean canFormParty = false;
+                int[] batchInstances = null;
+                int[] batchTimes = null;
+                int batchCount = 0;
+                boolean firstBatch = false;
+                String remainingQueue = null;
+                InstanceStatusSnapshot claimedStatus = null;
                 
                 synchronized (lock) {
                     // Check if we can form more parties
                     if (tankCount <= 0 || healerCount <= 0 || dpsCount < 3) {
                         // Print a message if we can't form parties due to lack of resources
                         if (tankCount > 0 || healerCount > 0 || dpsCount > 0) {
-                            System.out.println("\nCannot form more parties due to:");
-                            if (tankCount <= 0) System.out.println("- Not enough " + formatRole("Tanks"));
-                            if (healerCount <= 0) System.out.println("- Not enough " + formatRole("Healers"));
-                            if (dpsCount < 3) System.out.println("- Not enough " + formatRole("DPS") + " (need at least 3)");
+                            out.println("\nCannot form more parties due to:");
+                            if (tankCount <= 0) out.println("- Not enough " + formatRole("Tanks"));
+                            if (healerCount <= 0) out.println("- Not enough " + formatRole("Healers"));
+                            if (dpsCount < 3) out.println("- Not enough " + formatRole("DPS") + " (need at least 3)");
                         }
                         morePartiesToForm = false;
                         continue;
                     }
                     
-                    // Find an available instance
-                    for (int i = 0; i < maxInstances; i++) {
+                    // Claim up to k = min(free instances, formable parties, batch size) in one step
+                    int k = Math.min(Math.min(calculateMaxParties(), batchSize), maxInstances - activeInstances);
+                    batchInstances = new int[k];
+                    batchTimes = new int[batchInstances.length];
+                    long now = System.nanoTime();
+                    boolean waitingForMatch = false;
+                    
+                    beginCounterUpdate();
+                    for (int i = 0; i < maxInstances && batchCount < batchInstances.length; i++) {
                         if (!instanceActive[i]) {
-                            availableInstance = i;
-                            canFormParty = true;
-                            break;
+                            // With matchmaking, stop once no party fits the current rating windows
+                            if (matchmaker != null && !matchmaker.formParty(simulatedNanos(now))) {
+                                waitingForMatch = true;
+                                break;
+                            }
+                            
+                            // Create a party
+                            tankCount--;
+                            healerCount--;
+                            dpsCount -= 3;
+                            
+                            // Claim the instance
+                            int completionTime = minTime + random.nextInt(maxTime - minTime + 1);
+                            instanceActive[i] = true;
+                            currentCompletionTimes[i] = completionTime;
+                            instanceStartNanos[i] = now; // Replaced once the run thread starts sleeping
+                            activeInstances++;
+                            if (partiesStarted++ == 0) {
+                                firstPartyEpochMillis = System.currentTimeMillis();
+                                firstBatch = true;
+                            }
+                            
+                            batchInstances[batchCount] = i;
+                            batchTimes[batchCount] = completionTime;
+                            batchCount++;
                         }
                     }
+                    endCounterUpdate();
                     
-                    // If we can form a party and have an available instance
-                    if (canFormParty) {
-                        // Create a party
-                        tankCount--;
-                        healerCount--;
-                        dpsCount -= 3;
-                        
-                        // Start the instance
-                        startInstance(availableInstance);
+                    if (batchCount > 0) {
+                        matchWaitReported = false;
+                        if (formableIdleSinceNanos != 0) {
+                            maxWakeupGapNanos = Math.max(maxWakeupGapNanos, now - formableIdleSinceNanos);
+                            formableIdleSinceNanos = 0;
+                        }
+                        if (matchmaker == null && batchCount == batchInstances.length
+                                && activeInstances < maxInstances && calculateMaxParties() > 0) {
+                            // A full batch that still leaves free instances and formable parties
+                            // was cut short by the batch size; the next loop claims the rest
+                            formableIdleSinceNanos = now;
+                        }
+                        publishStatus();
+                        claimedStatus = statusSnapshot;
+                        remainingQueue = "\nRemaining in queue:\n"
+                                + formatRole("Tanks") + ": " + tankCount + "\n"
+                                + formatRole("Healers") + ": " + healerCount + "\n"
+                                + formatRole("DPS") + ": " + dpsCount;
+                    } else if (waitingForMatch) {
+                        // No compatible party yet, wait for the rating windows to widen (reported once per wait)
+                        if (!matchWaitReported) {
+                            out.println("\nNo party within the rating window yet. Widening the search...");
+                            matchWaitReported = true;
+                        }
+                        morePartiesToForm = false;
                     } else {
                         // No available instances, wait for one to become available
-                        System.out.println("\nAll instances are currently active. Waiting for one to become available...");
+                        out.println("\nAll instances are currently active. Waiting for one to become available...");
                         morePartiesToForm = false;
                     }
                 }
                 
+                // Launch the claimed runs outside the lock
+                if (batchCount > 0) {
+                    startInstances(batchInstances, batchTimes, batchCount, claimedStatus, remainingQueue);
+                    if (firstBatch && firstPartyHook != null) {
+                        firstPartyHook.run();
+                    }
+                }
+                
                 // If no instances are available but we have resources, wait a bit before checking again
                 // This prevents CPU spinning and allows other threads to make progress
                 if (!morePartiesToForm && tankCount > 0 && healerCount > 0 && dpsCount >= 3) {
@@ -231,34 +402,50 @@ public class DungeonManager {
     }
     
     /**
-     * Starts a dungeon instance with the given ID.
+     * Starts the dungeon runs for a batch of instances that were already claimed under lock.
+     * The whole batch is reported with a single print and each run gets its own thread.
      * 
-     * @param instanceId The ID of the instance to start
+     * @param instanceIds The IDs of the claimed instances
+     * @param completionTimes The completion time (in seconds) of each claimed instance
+     * @param count The number of claimed instances in the arrays
+     * @param claimedStatus The status snapshot published when the batch was claimed
+     * @param remainingQueue The remaining queue at the time the batch was claimed
      */
-    private void startInstance(int instanceId) {
-        // Calculate random completion time
-        final int completionTime = minTime + random.nextInt(maxTime - minTime + 1);
-        
-        synchronized (lock) {
-            instanceActive[instanceId] = true;
-            currentCompletionTimes[instanceId] = completionTime;
-            
-            System.out.println("\nStarting " + formatDungeon("instance") + " " + (instanceId + 1) + " with completion time: " + TIME_COLOR + completionTime + " seconds" + RESET);
-            printInstanceStatus(); // Always print status when starting an instance
-            
-            // Print remaining queue after starting an instance
-            System.out.println("\nRemaining in queue:");
-            System.out.println(formatRole("Tanks") + ": " + tankCount);
-            System.out.println(formatRole("Healers") + ": " + healerCount);
-            System.out.println(formatRole("DPS") + ": " + dpsCount);
+    private void startInstances(int[] instanceIds, int[] completionTimes, int count, InstanceStatusSnapshot claimedStatus, String remainingQueue) {
+        StringBuilder report = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            report.append("\nStarting ").append(formatDungeon("instance")).append(" ").append(instanceIds[i] + 1)
+                  .append(" with completion time: ").append(TIME_COLOR).append(completionTimes[i]).append(" seconds").append(RESET).append("\n");
         }
+        report.append(renderInstanceStatus(claimedStatus)); // Always print status when starting instances
+        report.append("\n").append(remainingQueue);
+        out.println(report);
         
+        for (int i = 0; i < count; i++) {
+            startInstance(instanceIds[i], completionTimes[i]);
+        }
+    }
+    
+    /**
+     * Starts the dungeon run for an instance that was already claimed under lock.
+     * 
+     * @param instanceId The ID of the instance to start
+     * @param completionTime The completion time (in seconds) of the run
+     */
+    private void startInstance(int instanceId, int completionTime) {
         // Start a thread to simulate the dungeon run
         new Thread(() -> {
             try {
+                // Stamp the actual run start, after the batch report and thread start, so Remaining matches the sleep
+                synchronized (lock) {
+                    instanceStartNanos[instanceId] = System.nanoTime();
+                    publishStatus();
+                }
+                
                 // Sleep for the completion time (in milliseconds)
-                Thread.sleep(completionTime * 1000);
+                Thread.sleep(completionTime * millisPerSecond);
                 
+                InstanceStatusSnapshot completedStatus = null;
                 synchronized (lock) {
                     // Only proceed if the instance is still active
                     if (instanceActive[instanceId]) {
@@ -267,18 +454,34 @@ public class DungeonManager {
                         instancePartiesServed[instanceId]++;
                         instanceTotalTime[instanceId] += completionTime;
                         currentCompletionTimes[instanceId] = 0; // Reset current completion time
-                        
-                        System.out.println("\n" + formatDungeon("Instance") + " " + (instanceId + 1) + " completed after " + TIME_COLOR + completionTime + " seconds" + RESET);
-                        printInstanceStatus(); // Always print status when an instance completes
+                        beginCounterUpdate();
+                        activeInstances--;
+                        partiesCompleted++;
+                        endCounterUpdate();
+                        lastCompletionNanos = System.nanoTime();
+                        if (formableIdleSinceNanos == 0 && matchmaker == null && calculateMaxParties() > 0) {
+                            formableIdleSinceNanos = lastCompletionNanos;
+                        }
+                        publishStatus();
+                        completedStatus = statusSnapshot;
                         
                         // Signal that this party has completed
                         completionLatch.countDown();
+                    } else {
+                        // Someone else already completed this run; checkInvariants() reports it
+                        doubleCompletions++;
                     }
                 }
                 
+                // Report the completion outside the lock
+                if (completedStatus != null) {
+                    out.println("\n" + formatDungeon("Instance") + " " + (instanceId + 1) + " completed after " + TIME_COLOR + completionTime + " seconds" + RESET
+                            + "\n" + renderInstanceStatus(completedStatus)); // Always print status when an instance completes
+                }
+                
                 // Add a small delay before trying to form more parties
                 // This helps prevent race conditions with very short completion times
-                Thread.sleep(100);
+                Thread.sleep(REFORM_DELAY_MILLIS);
                 
                 // Try to form more parties if possible, but only if we're not the last party
                 synchronized (lock) {
@@ -359,16 +562,21 @@ public class DungeonManager {
                     // Add a safety timeout to prevent infinite waiting
                     checkCount++;
                     if (checkCount > 60) { // 30 seconds timeout
-                        System.out.println("\nWARNING: Timeout waiting for instances to complete. Some instances may still be active.");
+                        out.println("\nWARNING: Timeout waiting for instances to complete. Some instances may still be active.");
                         break;
                     }
                 }
             }
             
+            // Stop recording before any user pause so the samples end with the run
+            if (sampler != null) {
+                sampler.stop();
+            }
+            
             // Make sure all console output is complete
             Thread.sleep(1000);
             
-            System.out.println("\n== All Dungeons Completed ==");
+            out.println("\n== All Dungeons Completed ==");
             printInstanceStatus();
             
             pressAnyKeyToContinue();
@@ -378,58 +586,344 @@ public class DungeonManager {
         }
     }
     
+    /**
+     * Redirects the manager's console output, e.g. to silence it in benchmarks.
+     * 
+     * @param out The stream to print to
+     */
+    void setOutput(PrintStream out) {
+        this.out = out;
+    }
+    
+    /**
+     * Attaches a sampler that waitForCompletion() stops once all instances are done,
+     * before pausing for user input.
+     * 
+     * @param sampler The sampler recording this manager
+     */
+    public void setSampler(SchedulerSampler sampler) {
+        this.sampler = sampler;
+    }
+    
+    /**
+     * Enables rating-based matchmaking. Must be called before queuePlayers().
+     * 
+     * @param matchmaker The matchmaker that picks the players for each party
+     * @throws IllegalStateException If players have already been queued
+     */
+    public void setMatchmaker(Matchmaker matchmaker) {
+        synchronized (lock) {
+            // Players queued earlier are not in the matchmaker's index, so no party could ever form
+            if (completionLatch != null) {
+                throw new IllegalStateException("Matchmaker must be set before players are queued");
+            }
+            this.matchmaker = matchmaker;
+        }
+    }
+    
+    /**
+     * Changes the length of one simulated second, so that t1/t2 can be shorter than real seconds.
+     * Must be called before any party is formed.
+     * 
+     * @param millisPerSecond Length of one simulated second (in milliseconds)
+     */
+    void setMillisPerSecond(long millisPerSecond) {
+        this.millisPerSecond = millisPerSecond;
+    }
+    
+    /**
+     * Seeds the source of completion times (and matchmaking ratings), so the StressHarness can
+     * repeat a trial's configuration and completion times. Must be called before queuePlayers().
+     * 
+     * @param seed The random seed
+     */
+    void setSeed(long seed) {
+        synchronized (lock) {
+            this.random = new Random(seed);
+        }
+    }
+    
+    /**
+     * Checks the scheduler invariants under the lock:
+     * - No role count has been over-drawn, and role counts match the parties started
+     * - Every active instance holds exactly one party and no run completed twice
+     * - The completion latch has counted down once per completed party
+     * 
+     * @return A description of each violated invariant, empty if all hold
+     */
+    List<String> checkInvariants() {
+        List<String> violations = new ArrayList<>();
+        synchronized (lock) {
+            if (tankCount < 0 || healerCount < 0 || dpsCount < 0) {
+                violations.add("Role over-drawn: tanks=" + tankCount + " healers=" + healerCount + " dps=" + dpsCount);
+            }
+            if (queuedTanks - tankCount != partiesStarted || queuedHealers - healerCount != partiesStarted
+                    || queuedDps - dpsCount != partiesStarted * 3) {
+                violations.add("Roles drawn do not match " + partiesStarted + " parties started");
+            }
+            
+            int active = 0;
+            long served = 0;
+            for (int i = 0; i < maxInstances; i++) {
+                if (instanceActive[i]) {
+                    active++;
+                }
+                served += instancePartiesServed[i];
+            }
+            if (active != activeInstances || partiesStarted - partiesCompleted != activeInstances) {
+                violations.add("Instance bookkeeping mismatch: active=" + active + " counter=" + activeInstances
+                        + " started=" + partiesStarted + " completed=" + partiesCompleted);
+            }
+            if (served != partiesCompleted) {
+                violations.add("Parties served " + served + " != parties completed " + partiesCompleted);
+            }
+            if (doubleCompletions > 0) {
+                violations.add(doubleCompletions + " run(s) completed an instance that was not active");
+            }
+            if (completionLatch != null && queuedParties - completionLatch.getCount() != partiesCompleted) {
+                violations.add("Latch counted " + (queuedParties - completionLatch.getCount())
+                        + " completions, expected " + partiesCompleted);
+            }
+        }
+        return violations;
+    }
+    
+    /**
+     * Waits until every party counted at queue time has completed.
+     * Unlike waitForCompletion(), this does not print or wait for user input.
+     * 
+     * @param timeout The maximum time to wait
+     * @param unit The unit of the timeout
+     * @return true if all parties completed, false if the timeout elapsed first
+     * @throws InterruptedException If interrupted while waiting
+     */
+    boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        return completionLatch.await(timeout, unit);
+    }
+    
+    /**
+     * Returns the longest time an instance stayed free while a party could have been formed,
+     * measured under lock from the run completion (or partial batch) to the next party start.
+     * Only tracked for role-count formation; matchmaking waits on purpose.
+     * 
+     * @return The longest wakeup gap (in nanoseconds)
+     */
+    long getMaxWakeupGapNanos() {
+        synchronized (lock) {
+            return maxWakeupGapNanos;
+        }
+    }
+    
+    /**
+     * Sets a callback that runs once, right after the first party of the run has been started.
+     * Must be called before formParties().
+     * 
+     * @param hook The callback to run
+     */
+    void setFirstPartyHook(Runnable hook) {
+        this.firstPartyHook = hook;
+    }
+    
+    /**
+     * Returns the wall-clock time at which the first party was started, for the startup benchmark.
+     * 
+     * @return The time in milliseconds since the epoch, or 0 if no party has started yet
+     */
+    long getFirstPartyEpochMillis() {
+        return firstPartyEpochMillis;
+    }
+    
+    /**
+     * Returns the number of tanks still in the queue.
+     * Safe to call without holding the scheduler lock.
+     * 
+     * @return The current tank count
+     */
+    int getTankCount() {
+        return tankCount;
+    }
+    
+    /**
+     * Returns the number of healers still in the queue.
+     * Safe to call without holding the scheduler lock.
+     * 
+     * @return The current healer count
+     */
+    int getHealerCount() {
+        return healerCount;
+    }
+    
+    /**
+     * Returns the number of DPS still in the queue.
+     * Safe to call without holding the scheduler lock.
+     * 
+     * @return The current DPS count
+     */
+    int getDpsCount() {
+        return dpsCount;
+    }
+    
+    /**
+     * Returns the number of instances currently running a party.
+     * Safe to call without holding the scheduler lock.
+     * 
+     * @return The number of active instances
+     */
+    int getActiveInstances() {
+        return activeInstances;
+    }
+    
+    /**
+     * Returns the total number of parties started so far.
+     * Safe to call without holding the scheduler lock.
+     * 
+     * @return The number of parties started
+     */
+    long getPartiesStarted() {
+        return partiesStarted;
+    }
+    
+    /**
+     * Returns the total number of parties that have completed their dungeon.
+     * Safe to call without holding the scheduler lock.
+     * 
+     * @return The number of parties completed
+     */
+    long getPartiesCompleted() {
+        return partiesCompleted;
+    }
+    
+    /**
+     * Returns the version of the sampled counters (role counts, active instances, parties started
+     * and completed). The version is odd while a change is in progress and moves on after every
+     * change, so a reader that sees the same even version before and after reading the counters
+     * has read a consistent set. Safe to call without holding the scheduler lock.
+     * 
+     * @return The current counter version
+     */
+    long getCounterVersion() {
+        return counterVersion;
+    }
+    
+    /**
+     * Marks the start of a change to the sampled counters. Must be called while holding lock.
+     */
+    private void beginCounterUpdate() {
+        counterVersion++;
+    }
+    
+    /**
+     * Marks the end of a change to the sampled counters. Must be called while holding lock.
+     */
+    private void endCounterUpdate() {
+        counterVersion++;
+    }
+    
+    /**
+     * Publishes a new status snapshot from the current instance state.
+     * Must be called while holding lock, after every change to the instance arrays or role counts.
+     * Copies the three per-instance arrays, so each write costs O(maxInstances) under lock;
+     * reading the snapshot costs nothing.
+     */
+    private void publishStatus() {
+        statusSnapshot = new InstanceStatusSnapshot(++snapshotVersion,
+                instanceActive.clone(), currentCompletionTimes.clone(), instanceStartNanos.clone(),
+                millisPerSecond, tankCount, healerCount, dpsCount);
+    }
+    
+    /**
+     * Returns the most recently published view of the instances.
+     * Does not take the scheduler lock, so it can be polled freely without slowing down party formation.
+     * 
+     * @return An immutable snapshot of the instance status
+     */
+    public InstanceStatusSnapshot getStatusSnapshot() {
+        return statusSnapshot;
+    }
+    
     /**
      * Prints the current status of all instances.
+     * Reads the latest status snapshot, so callers do not need to hold the scheduler lock.
      */
     public void printInstanceStatus() {
-        System.out.println("\nCurrent " + formatDungeon("Instance") + " Status:");
-        for (int i = 0; i < maxInstances; i++) {
-            if (instanceActive[i]) {
-                System.out.println(formatDungeon("Dungeon") + " " + (i + 1) + ": " + formatStatus("active") + " | Time to subjugate: " + TIME_COLOR + currentCompletionTimes[i] + " seconds" + RESET);
+        out.println(renderInstanceStatus(statusSnapshot));
+    }
+    
+    /**
+     * Renders the status of all instances in a snapshot as a single string.
+     * 
+     * @param snapshot The snapshot to render
+     * @return The rendered status
+     */
+    private static String renderInstanceStatus(InstanceStatusSnapshot snapshot) {
+        StringBuilder status = new StringBuilder();
+        status.append("\nCurrent ").append(formatDungeon("Instance")).append(" Status:");
+        for (int i = 0; i < snapshot.getInstanceCount(); i++) {
+            status.append("\n").append(formatDungeon("Dungeon")).append(" ").append(i + 1).append(": ");
+            if (snapshot.isActive(i)) {
+                status.append(formatStatus("active")).append(" | Time to subjugate: ").append(TIME_COLOR).append(snapshot.getCompletionTime(i)).append(" seconds").append(RESET)
+                      .append(" | Remaining: ").append(TIME_COLOR).append(String.format("%.1f", snapshot.getRemainingMillis(i) / 1000.0)).append(" seconds").append(RESET);
             } else {
-                System.out.println(formatDungeon("Dungeon") + " " + (i + 1) + ": " + formatStatus("empty"));
+                status.append(formatStatus("empty"));
             }
         }
+        return status.toString();
     }
     
     /**
      * Prints a summary of the dungeon quest.
      */
     public void printSummary() {
-        System.out.println("\n" + formatHeader("Dungeon Quest Summary"));
+        out.println("\n" + formatHeader("Dungeon Quest Summary"));
         for (int i = 0; i < maxInstances; i++) {
-            System.out.println(formatDungeon("Dungeon") + " " + (i + 1) + ": " +
+            out.println(formatDungeon("Dungeon") + " " + (i + 1) + ": " +
                     "Parties served: " + instancePartiesServed[i] +
                     ", Total time: " + TIME_COLOR + instanceTotalTime[i] + " seconds" + RESET);
         }
         
+        // Print throughput over the run
+        if (partiesCompleted > 0) {
+            double runSeconds = (lastCompletionNanos - queuedAtNanos) / 1_000_000.0 / millisPerSecond;
+            out.println("\nThroughput: " + String.format("%.2f", partiesCompleted * 60 / runSeconds) + " parties per minute"
+                    + " (" + partiesCompleted + " parties in " + TIME_COLOR + String.format("%.1f", runSeconds) + " seconds" + RESET + ")");
+        }
+        
+        // Print match quality
+        if (matchmaker != null) {
+            out.println("\n" + formatHeader("Match Quality"));
+            out.println("Rating spread per party: mean " + String.format("%.1f", matchmaker.getMeanSpread())
+                    + ", max " + matchmaker.getMaxSpread());
+            out.println("Queue wait: mean " + TIME_COLOR + String.format("%.1f", matchmaker.getMeanWaitSeconds()) + " seconds" + RESET
+                    + ", max " + TIME_COLOR + String.format("%.1f", matchmaker.getMaxWaitSeconds()) + " seconds" + RESET);
+        }
+        
         // Print unused players
-        System.out.println("\n" + formatRole("Idle Adventurers") + ":");
-        System.out.println(formatRole("Tanks") + ": " + tankCount);
-        System.out.println(formatRole("Healers") + ": " + healerCount);
-        System.out.println(formatRole("DPS") + ": " + dpsCount);
+        out.println("\n" + formatRole("Idle Adventurers") + ":");
+        out.println(formatRole("Tanks") + ": " + tankCount);
+        out.println(formatRole("Healers") + ": " + healerCount);
+        out.println(formatRole("DPS") + ": " + dpsCount);
         
         // Identify the limiting role
         if (tankCount > 0 || healerCount > 0 || dpsCount > 0) {
-            System.out.println("\n" + formatHeader("The conquest had ended! Cannot generate more parties because of lack of:"));
+            out.println("\n" + formatHeader("The conquest had ended! Cannot generate more parties because of lack of:"));
             
             if (tankCount == 0 && (healerCount > 0 || dpsCount >= 3)) {
-                System.out.println("- " + formatRole("Tanks"));
+                out.println("- " + formatRole("Tanks"));
             }
             
             if (healerCount == 0 && (tankCount > 0 || dpsCount >= 3)) {
-                System.out.println("- " + formatRole("Healers"));
+                out.println("- " + formatRole("Healers"));
             }
             
             if (dpsCount < 3 && (tankCount > 0 || healerCount > 0)) {
-                System.out.println("- " + formatRole("DPS") + " (need at least 3)");
+                out.println("- " + formatRole("DPS") + " (need at least 3)");
             }
             
             if (tankCount > 0 && healerCount > 0 && dpsCount >= 3) {
-                System.out.println("- Available " + formatDungeon("instances") + " (all instances are in use)");
+                out.println("- Available " + formatDungeon("instances") + " (all instances are in use)");
             }
         } else {
-            System.out.println("\nAll " + formatRole("Adventurers") + " were assigned to parties.");
+            out.println("\nAll " + formatRole("Adventurers") + " were assigned to parties.");
         }
     }
 }
@@ -0,0 +1,69 @@
+package com.lfg;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import static com.lfg.TextFormatter.*;
+
+/**
+ * FormationBenchmark class for measuring the cost of party formation per party.
+ * Runs formParties() for a full fleet of instances at several batch sizes, with the
+ * console output discarded, and reports the average time spent per party formed.
+ *
+ * Usage: FormationBenchmark [instances] [iterations]
+ */
+public class FormationBenchmark {
+    private static final int[] BATCH_SIZES = {1, 4, 16, 64, Integer.MAX_VALUE};
+
+    /**
+     * The entry point of the benchmark.
+     *
+     * @param args Optional number of instances (default 500) and measured iterations (default 3)
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int instances = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+        System.out.println(formatHeader("Party Formation Benchmark (" + instances + " instances)"));
+        System.out.println(String.format("  %10s %14s", "batch size", "us per party"));
+
+        for (int batchSize : BATCH_SIZES) {
+            // One warm-up round, then the measured rounds
+            runOnce(instances, batchSize, discard);
+
+            long totalNanos = 0;
+            for (int i = 0; i < iterations; i++) {
+                totalNanos += runOnce(instances, batchSize, discard);
+            }
+
+            double microsPerParty = totalNanos / 1000.0 / ((long) iterations * instances);
+            System.out.println(String.format("  %10s %14.2f",
+                    batchSize == Integer.MAX_VALUE ? "unlimited" : String.valueOf(batchSize), microsPerParty));
+        }
+
+        System.exit(0);
+    }
+
+    /**
+     * Forms exactly one party per instance and waits for the runs to finish.
+     *
+     * @return The time spent in formParties() (in nanoseconds)
+     */
+    private static long runOnce(int instances, int batchSize, PrintStream discard) throws InterruptedException {
+        DungeonManager manager = new DungeonManager(instances, 1, 1, batchSize);
+        manager.setOutput(discard);
+        manager.queuePlayers(instances, instances, instances * 3);
+
+        long start = System.nanoTime();
+        manager.formParties();
+        long elapsed = System.nanoTime() - start;
+
+        if (!manager.awaitCompletion(30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Dungeon runs did not complete");
+        }
+        return elapsed;
+    }
+}
@@ -0,0 +1,154 @@
+package com.lfg;
+
+/**
+ * InstanceStatusSnapshot class representing an immutable view of the dungeon instances.
+ * A new snapshot is published by DungeonManager every time an instance starts or completes,
+ * so readers can inspect a consistent state without taking the scheduler lock.
+ */
+public final class InstanceStatusSnapshot {
+    /**
+     * The publish sequence number. Higher versions describe later states.
+     */
+    private final long version;
+
+    private final boolean[] instanceActive;
+    private final int[] completionTimes;
+    private final long[] startNanos;
+    private final long millisPerSecond;
+
+    private final int tankCount;
+    private final int healerCount;
+    private final int dpsCount;
+
+    /**
+     * Constructs a new snapshot. The arrays must be private copies; they are not copied again.
+     *
+     * @param version The publish sequence number
+     * @param instanceActive Whether each instance is running a party
+     * @param completionTimes Completion time (in seconds) of the party in each active instance
+     * @param startNanos System.nanoTime() at which the run in each active instance started sleeping
+     *                   (the claim time until the run thread has started)
+     * @param millisPerSecond Length of one simulated second (in milliseconds)
+     * @param tankCount Number of tanks still in the queue
+     * @param healerCount Number of healers still in the queue
+     * @param dpsCount Number of DPS still in the queue
+     */
+    InstanceStatusSnapshot(long version, boolean[] instanceActive, int[] completionTimes, long[] startNanos,
+                           long millisPerSecond, int tankCount, int healerCount, int dpsCount) {
+        this.version = version;
+        this.instanceActive = instanceActive;
+        this.completionTimes = completionTimes;
+        this.startNanos = startNanos;
+        this.millisPerSecond = millisPerSecond;
+        this.tankCount = tankCount;
+        this.healerCount = healerCount;
+        this.dpsCount = dpsCount;
+    }
+
+    /**
+     * Returns the publish sequence number of this snapshot.
+     *
+     * @return The version; a higher version describes a later state
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of dungeon instances, active or not.
+     *
+     * @return The number of instances
+     */
+    public int getInstanceCount() {
+        return instanceActive.length;
+    }
+
+    /**
+     * Checks whether the given instance is running a party.
+     *
+     * @param instanceId The ID of the instance
+     * @return true if the instance is active
+     */
+    public boolean isActive(int instanceId) {
+        return instanceActive[instanceId];
+    }
+
+    /**
+     * Returns the completion time of the party in the given instance.
+     *
+     * @param instanceId The ID of the instance
+     * @return The completion time (in seconds), or 0 if the instance is empty
+     */
+    public int getCompletionTime(int instanceId) {
+        return completionTimes[instanceId];
+    }
+
+    /**
+     * Returns how long the party in the given instance still needs, measured against the current time.
+     *
+     * @param instanceId The ID of the instance
+     * @return The remaining time (in milliseconds), or 0 if the instance is empty
+     */
+    public long getRemainingMillis(int instanceId) {
+        if (!instanceActive[instanceId]) {
+            return 0;
+        }
+        long elapsedMillis = (System.nanoTime() - startNanos[instanceId]) / 1_000_000L;
+        return Math.max(0, completionTimes[instanceId] * millisPerSecond - elapsedMillis);
+    }
+
+    /**
+     * Returns the remaining time summed over all active instances.
+     *
+     * @return The total remaining time (in milliseconds)
+     */
+    public long getTotalRemainingMillis() {
+        long total = 0;
+        for (int i = 0; i < instanceActive.length; i++) {
+            total += getRemainingMillis(i);
+        }
+        return total;
+    }
+
+    /**
+     * Counts the instances that are running a party.
+     *
+     * @return The number of active instances
+     */
+    public int getActiveInstances() {
+        int active = 0;
+        for (boolean isActive : instanceActive) {
+            if (isActive) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Returns the number of tanks still in the queue.
+     *
+     * @return The tank count
+     */
+    public int getTankCount() {
+        return tankCount;
+    }
+
+    /**
+     * Returns the number of healers still in the queue.
+     *
+     * @return The healer count
+     */
+    public int getHealerCount() {
+        return healerCount;
+    }
+
+    /**
+     * Returns the number of DPS still in the queue.
+     *
+     * @return The DPS count
+     */
+    public int getDpsCount() {
+        return dpsCount;
+    }
+}
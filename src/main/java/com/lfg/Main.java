@@ -1,5 +1,7 @@
 package com.lfg;
 
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
 import java.util.Scanner;
 import static com.lfg.TextFormatter.*;
 
@@ -16,6 +18,7 @@ public class Main {
      * @param args Command line arguments (not used)
      */
     public static void main(String[] args) {
+        long mainEnteredMillis = System.currentTimeMillis();
         Scanner scanner = new Scanner(System.in);
         
         try {
@@ -49,19 +52,61 @@ public class Main {
             
             pressAnyKeyToContinue();
             clearScreen();
+            long inputDoneMillis = System.currentTimeMillis();
 
             // Create dungeon manager
-            DungeonManager manager = new DungeonManager(maxInstances, minTime, maxTime);
+            DungeonManager manager = new DungeonManager(maxInstances, minTime, maxTime,
+                    Integer.getInteger("lfg.batchSize", Integer.MAX_VALUE));
+            
+            // Optionally match players by rating (-Dlfg.matchmaking=true)
+            if (Boolean.getBoolean("lfg.matchmaking")) {
+                manager.setMatchmaker(new Matchmaker(
+                        Integer.getInteger("lfg.matchmaking.regions", 1),
+                        Integer.getInteger("lfg.matchmaking.window", 300),
+                        Integer.getInteger("lfg.matchmaking.widenPerSecond", 100),
+                        Integer.getInteger("lfg.matchmaking.regionRelaxSeconds", 5)));
+            }
             
             // Queue players
             manager.queuePlayers(tankCount, healerCount, dpsCount);
             
+            // Optionally record scheduler state over the run (-Dlfg.metrics.file=<path>)
+            String metricsFile = System.getProperty("lfg.metrics.file");
+            SchedulerSampler sampler = null;
+            if (metricsFile != null) {
+                sampler = new SchedulerSampler(manager,
+                        Long.getLong("lfg.metrics.intervalMs", 100),
+                        Integer.getInteger("lfg.metrics.capacity", 1 << 20));
+                manager.setSampler(sampler);
+                sampler.start();
+            }
+            
+            // Report startup cost as soon as the first party starts (-Dlfg.startup.benchmark=true).
+            // The JVM-start figures include time spent at the prompts, so they are only
+            // meaningful with piped input; the end-of-input figure is valid interactively too.
+            if (Boolean.getBoolean("lfg.startup.benchmark")) {
+                manager.setFirstPartyHook(() -> {
+                    long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+                    long firstPartyMillis = manager.getFirstPartyEpochMillis();
+                    System.out.println("\n" + formatHeader("Startup Benchmark"));
+                    System.out.println("JVM start to main(): " + TIME_COLOR + (mainEnteredMillis - jvmStartMillis) + " ms" + RESET);
+                    System.out.println("JVM start to first party (piped input only): " + TIME_COLOR + (firstPartyMillis - jvmStartMillis) + " ms" + RESET);
+                    System.out.println("End of input to first party: " + TIME_COLOR + (firstPartyMillis - inputDoneMillis) + " ms" + RESET);
+                });
+            }
+            
             // Form parties and start instances
             manager.formParties();
             
             // Wait for all instances to complete
             manager.waitForCompletion();
             
+            if (sampler != null) {
+                sampler.stop(); // Already stopped by waitForCompletion() unless it was interrupted
+                sampler.writeTo(Path.of(metricsFile));
+                System.out.println("\nRecorded " + sampler.getSampleCount() + " scheduler samples to " + metricsFile);
+            }
+            
         } catch (Exception e) {
             System.out.println("An error occurred: " + e.getMessage());
         } finally {
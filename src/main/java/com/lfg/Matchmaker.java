@@ -0,0 +1,278 @@
+package com.lfg;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Matchmaker class for forming parties of players with similar ratings.
+ * This class is responsible for:
+ * - Indexing queued healers and DPS by region and rating bucket
+ * - Forming 1 tank / 1 healer / 3 DPS parties around the longest-waiting tanks
+ * - Widening the accepted rating window (and dropping the region constraint) as tanks wait longer
+ * - Tracking match quality (rating spread and wait time) of the parties formed
+ *
+ * Ratings are matched at bucket granularity, so a party member may be up to one bucket width
+ * outside the window. Forming a party looks at a bounded number of anchors and buckets, so its
+ * cost does not grow with the number of queued players.
+ *
+ * Times are nanoseconds on a clock chosen by the caller (DungeonManager passes simulated time),
+ * so window widening, region relaxation and the reported waits all use the caller's seconds.
+ */
+public class Matchmaker {
+    public static final int MAX_RATING = 3000;
+    public static final int BUCKET_WIDTH = 25;
+    private static final int BUCKET_COUNT = MAX_RATING / BUCKET_WIDTH;
+
+    // How many of the longest-waiting tanks are tried as anchors per party
+    private static final int MAX_ANCHOR_ATTEMPTS = 8;
+
+    private static final int HEALER = 0;
+    private static final int DPS = 1;
+
+    /**
+     * A player waiting in the queue.
+     */
+    private static final class QueuedPlayer {
+        final int rating;
+        final int region;
+        final long queuedAtNanos;
+
+        QueuedPlayer(int rating, int region, long queuedAtNanos) {
+            this.rating = rating;
+            this.region = region;
+            this.queuedAtNanos = queuedAtNanos;
+        }
+    }
+
+    private final int regions;
+    private final int baseWindow;
+    private final int widenPerSecond;
+    private final int regionRelaxSeconds;
+
+    // Tanks in queue order; each party is anchored on one of the first few
+    private final ArrayDeque<QueuedPlayer> tanks = new ArrayDeque<>();
+    // [HEALER or DPS][region][rating bucket]
+    private final ArrayDeque<QueuedPlayer>[][][] buckets;
+
+    // Scratch state for the party being assembled
+    private int needHealers;
+    private int needDps;
+    private int partyMinRating;
+    private int partyMaxRating;
+
+    private long partiesFormed;
+    private long totalSpread;
+    private int maxSpread;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    /**
+     * Constructs a new Matchmaker.
+     *
+     * @param regions Number of latency regions (1 to ignore regions)
+     * @param baseWindow Rating difference accepted from the anchor tank at first
+     * @param widenPerSecond How much the window widens per second the anchor has waited
+     * @param regionRelaxSeconds How long the anchor waits before players from other regions are accepted
+     */
+    @SuppressWarnings("unchecked")
+    public Matchmaker(int regions, int baseWindow, int widenPerSecond, int regionRelaxSeconds) {
+        if (regions < 1 || baseWindow < 0 || widenPerSecond <= 0 || regionRelaxSeconds < 0) {
+            throw new IllegalArgumentException("Invalid matchmaking settings");
+        }
+
+        this.regions = regions;
+        this.baseWindow = baseWindow;
+        this.widenPerSecond = widenPerSecond;
+        this.regionRelaxSeconds = regionRelaxSeconds;
+
+        this.buckets = (ArrayDeque<QueuedPlayer>[][][]) new ArrayDeque<?>[2][regions][BUCKET_COUNT];
+        for (int role = 0; role < 2; role++) {
+            for (int region = 0; region < regions; region++) {
+                for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                    buckets[role][region][bucket] = new ArrayDeque<>();
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues players with ratings drawn from a normal distribution (mean 1500, deviation 300)
+     * and uniformly random regions.
+     *
+     * @param tankCount Number of tanks to queue
+     * @param healerCount Number of healers to queue
+     * @param dpsCount Number of DPS to queue
+     * @param random Source of ratings and regions
+     * @param nowNanos The current time (in nanoseconds of the caller's clock)
+     */
+    public void queueRandomPlayers(int tankCount, int healerCount, int dpsCount, Random random, long nowNanos) {
+        for (int i = 0; i < tankCount; i++) {
+            tanks.addLast(new QueuedPlayer(randomRating(random), random.nextInt(regions), nowNanos));
+        }
+        for (int i = 0; i < healerCount; i++) {
+            add(HEALER, new QueuedPlayer(randomRating(random), random.nextInt(regions), nowNanos));
+        }
+        for (int i = 0; i < dpsCount; i++) {
+            add(DPS, new QueuedPlayer(randomRating(random), random.nextInt(regions), nowNanos));
+        }
+    }
+
+    /**
+     * Draws a rating from a normal distribution (mean 1500, deviation 300), clamped to the valid range.
+     *
+     * @param random Source of the rating
+     * @return A rating between 0 and MAX_RATING - 1
+     */
+    private static int randomRating(Random random) {
+        int rating = (int) Math.round(1500 + random.nextGaussian() * 300);
+        return Math.max(0, Math.min(MAX_RATING - 1, rating));
+    }
+
+    /**
+     * Adds a healer or DPS to the bucket for their region and rating.
+     *
+     * @param role HEALER or DPS
+     * @param player The player to add
+     */
+    private void add(int role, QueuedPlayer player) {
+        buckets[role][player.region][player.rating / BUCKET_WIDTH].addLast(player);
+    }
+
+    /**
+     * Tries to form one party whose healer and DPS are within the anchor tank's rating window.
+     * On success the five players are removed from the queue.
+     *
+     * @param nowNanos The current time (in nanoseconds of the caller's clock)
+     * @return true if a party was formed, false if no compatible party exists yet
+     */
+    public boolean formParty(long nowNanos) {
+        Iterator<QueuedPlayer> anchors = tanks.iterator();
+        for (int attempt = 0; attempt < MAX_ANCHOR_ATTEMPTS && anchors.hasNext(); attempt++) {
+            QueuedPlayer tank = anchors.next();
+
+            long waitedNanos = nowNanos - tank.queuedAtNanos;
+            long waitedSeconds = waitedNanos / 1_000_000_000L;
+            long window = Math.min(MAX_RATING, baseWindow + widenPerSecond * waitedSeconds);
+            boolean anyRegion = waitedSeconds >= regionRelaxSeconds;
+
+            int low = (int) Math.max(0, (tank.rating - window) / BUCKET_WIDTH);
+            int high = (int) Math.min(BUCKET_COUNT - 1, (tank.rating + window) / BUCKET_WIDTH);
+
+            if (countAvailable(HEALER, tank, low, high, anyRegion) < 1
+                    || countAvailable(DPS, tank, low, high, anyRegion) < 3) {
+                continue;
+            }
+
+            // Take the closest players, starting from the anchor's own bucket
+            needHealers = 1;
+            needDps = 3;
+            partyMinRating = tank.rating;
+            partyMaxRating = tank.rating;
+            int center = tank.rating / BUCKET_WIDTH;
+            for (int distance = 0; needHealers + needDps > 0; distance++) {
+                if (center - distance >= low) {
+                    takeFromBucket(center - distance, tank, anyRegion);
+                }
+                if (distance > 0 && center + distance <= high) {
+                    takeFromBucket(center + distance, tank, anyRegion);
+                }
+            }
+            anchors.remove();
+
+            int spread = partyMaxRating - partyMinRating;
+            partiesFormed++;
+            totalSpread += spread;
+            maxSpread = Math.max(maxSpread, spread);
+            totalWaitNanos += waitedNanos;
+            maxWaitNanos = Math.max(maxWaitNanos, waitedNanos);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Takes the healer and DPS still needed for the current party from one rating bucket.
+     */
+    private void takeFromBucket(int bucket, QueuedPlayer tank, boolean anyRegion) {
+        for (int region = 0; region < regions; region++) {
+            if (!anyRegion && region != tank.region) {
+                continue;
+            }
+            while (needHealers > 0 && !buckets[HEALER][region][bucket].isEmpty()) {
+                recordRating(buckets[HEALER][region][bucket].pollFirst().rating);
+                needHealers--;
+            }
+            while (needDps > 0 && !buckets[DPS][region][bucket].isEmpty()) {
+                recordRating(buckets[DPS][region][bucket].pollFirst().rating);
+                needDps--;
+            }
+        }
+    }
+
+    private void recordRating(int rating) {
+        partyMinRating = Math.min(partyMinRating, rating);
+        partyMaxRating = Math.max(partyMaxRating, rating);
+    }
+
+    /**
+     * Counts the players of a role in the anchor's window, stopping early once a full party's worth is found.
+     */
+    private int countAvailable(int role, QueuedPlayer tank, int low, int high, boolean anyRegion) {
+        int count = 0;
+        for (int region = 0; region < regions; region++) {
+            if (!anyRegion && region != tank.region) {
+                continue;
+            }
+            for (int bucket = low; bucket <= high && count < 3; bucket++) {
+                count += buckets[role][region][bucket].size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of parties formed so far.
+     *
+     * @return The number of parties formed
+     */
+    public long getPartiesFormed() {
+        return partiesFormed;
+    }
+
+    /**
+     * Returns the mean difference between the highest and lowest rating in a party.
+     *
+     * @return The mean rating spread
+     */
+    public double getMeanSpread() {
+        return partiesFormed == 0 ? 0 : (double) totalSpread / partiesFormed;
+    }
+
+    /**
+     * Returns the largest difference between the highest and lowest rating in a party.
+     *
+     * @return The maximum rating spread
+     */
+    public int getMaxSpread() {
+        return maxSpread;
+    }
+
+    /**
+     * Returns the mean time the anchor tanks waited before their party was formed.
+     *
+     * @return The mean wait (in seconds of the caller's clock)
+     */
+    public double getMeanWaitSeconds() {
+        return partiesFormed == 0 ? 0 : totalWaitNanos / 1e9 / partiesFormed;
+    }
+
+    /**
+     * Returns the longest time an anchor tank waited before its party was formed.
+     *
+     * @return The maximum wait (in seconds of the caller's clock)
+     */
+    public double getMaxWaitSeconds() {
+        return maxWaitNanos / 1e9;
+    }
+}
@@ -0,0 +1,52 @@
+package com.lfg;
+
+import java.util.Random;
+
+import static com.lfg.TextFormatter.*;
+
+/**
+ * MatchmakingBenchmark class for measuring party formation latency with a large queue.
+ * Queues the given number of players (1 tank : 1 healer : 3 DPS) into a Matchmaker and forms
+ * parties until the queue is drained, advancing a virtual clock by one millisecond per attempt.
+ *
+ * Usage: MatchmakingBenchmark [players] [regions]
+ */
+public class MatchmakingBenchmark {
+    /**
+     * The entry point of the benchmark.
+     *
+     * @param args Optional number of queued players (default 1,000,000) and regions (default 4)
+     */
+    public static void main(String[] args) {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int regions = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        int parties = players / 5;
+        Matchmaker matchmaker = new Matchmaker(regions, 300, 100, 5);
+        long clock = 0;
+        matchmaker.queueRandomPlayers(parties, parties, parties * 3, new Random(42), clock);
+
+        long totalNanos = 0;
+        long maxNanos = 0;
+        long attempts = 0;
+        while (matchmaker.getPartiesFormed() < parties) {
+            long start = System.nanoTime();
+            matchmaker.formParty(clock);
+            long elapsed = System.nanoTime() - start;
+
+            totalNanos += elapsed;
+            maxNanos = Math.max(maxNanos, elapsed);
+            attempts++;
+            clock += 1_000_000L;
+        }
+
+        System.out.println(formatHeader("Matchmaking Benchmark (" + players + " queued players, " + regions + " regions)"));
+        System.out.println("Parties formed: " + matchmaker.getPartiesFormed() + " in " + attempts + " attempts");
+        System.out.println("Formation latency: mean " + String.format("%.2f", totalNanos / 1000.0 / attempts)
+                + " us, max " + String.format("%.2f", maxNanos / 1000.0) + " us");
+        System.out.println("Rating spread per party: mean " + String.format("%.1f", matchmaker.getMeanSpread())
+                + ", max " + matchmaker.getMaxSpread());
+        System.out.println("Queue wait (virtual): mean " + TIME_COLOR + String.format("%.1f", matchmaker.getMeanWaitSeconds()) + " seconds" + RESET
+                + ", max " + TIME_COLOR + String.format("%.1f", matchmaker.getMaxWaitSeconds()) + " seconds" + RESET);
+    }
+}
@@ -0,0 +1,349 @@
+package com.lfg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * SchedulerSampler class for recording how the scheduler state evolves over a run.
+ * This class is responsible for:
+ * - Sampling role counts, active instances and start/completion totals at a fixed interval
+ * - Storing the samples in preallocated primitive ring buffers (one array per column)
+ * - Writing the samples at the end of the run as CSV or as a compact columnar binary file
+ *
+ * Sampling only reads the volatile counters exposed by DungeonManager, so it never
+ * takes the scheduler lock. The counters are read between two reads of the manager's counter
+ * version and re-read if the scheduler changed them in between, so the columns of a row are
+ * always consistent with each other. Once the ring buffer is full the oldest samples are overwritten.
+ */
+public class SchedulerSampler {
+    // Header of the columnar binary format
+    private static final int MAGIC = 0x4C464753; // "LFGS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int COLUMN_COUNT = 7;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final DungeonManager manager;
+    private final long intervalNanos;
+    private final int capacity;
+
+    // One primitive array per column, indexed by (sample number % capacity)
+    private final long[] elapsedNanos;
+    private final int[] tanks;
+    private final int[] healers;
+    private final int[] dps;
+    private final int[] activeInstances;
+    private final long[] partiesStarted;
+    private final long[] partiesCompleted;
+
+    // Only touched by the sampling thread until stop() has joined it
+    private long sampleCount;
+    private long startNanos;
+
+    private volatile boolean running;
+    private Thread samplerThread;
+
+    /**
+     * Constructs a new SchedulerSampler for the given manager.
+     * All sample buffers are allocated up front.
+     *
+     * @param manager The DungeonManager to sample
+     * @param intervalMillis Time between samples (in milliseconds)
+     * @param capacity Maximum number of samples kept (older samples are overwritten)
+     */
+    public SchedulerSampler(DungeonManager manager, long intervalMillis, int capacity) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Sampling interval must be positive: " + intervalMillis);
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Sample capacity must be positive: " + capacity);
+        }
+
+        this.manager = manager;
+        this.intervalNanos = intervalMillis * 1_000_000L;
+        this.capacity = capacity;
+
+        this.elapsedNanos = new long[capacity];
+        this.tanks = new int[capacity];
+        this.healers = new int[capacity];
+        this.dps = new int[capacity];
+        this.activeInstances = new int[capacity];
+        this.partiesStarted = new long[capacity];
+        this.partiesCompleted = new long[capacity];
+    }
+
+    /**
+     * Starts sampling on a background daemon thread.
+     */
+    public synchronized void start() {
+        if (samplerThread != null) {
+            throw new IllegalStateException("Sampler already started");
+        }
+
+        running = true;
+        startNanos = System.nanoTime();
+        samplerThread = new Thread(this::sampleLoop, "scheduler-sampler");
+        samplerThread.setDaemon(true);
+        samplerThread.start();
+    }
+
+    /**
+     * Stops sampling and waits for the sampling thread to finish.
+     * Takes one final sample so the end state of the run is always recorded. Safe to call more than once.
+     */
+    public synchronized void stop() {
+        if (samplerThread == null) {
+            return;
+        }
+
+        running = false;
+        LockSupport.unpark(samplerThread);
+        try {
+            samplerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sampling loop. Runs at a fixed rate so that slow samples do not shift later ones.
+     */
+    private void sampleLoop() {
+        long nextSample = startNanos;
+        while (running) {
+            recordSample(System.nanoTime());
+
+            nextSample += intervalNanos;
+            long delay;
+            while (running && (delay = nextSample - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, delay);
+            }
+        }
+
+        // Record the final state
+        recordSample(System.nanoTime());
+    }
+
+    /**
+     * Records a single sample into the ring buffers.
+     * Retries until the counters were read without a scheduler change in between (seqlock style).
+     *
+     * @param now The current System.nanoTime() value
+     */
+    private void recordSample(long now) {
+        int slot = (int) (sampleCount % capacity);
+
+        elapsedNanos[slot] = now - startNanos;
+        long version;
+        do {
+            // An odd version means a change is in progress
+            while (((version = manager.getCounterVersion()) & 1) != 0) {
+                Thread.onSpinWait();
+            }
+            tanks[slot] = manager.getTankCount();
+            healers[slot] = manager.getHealerCount();
+            dps[slot] = manager.getDpsCount();
+            activeInstances[slot] = manager.getActiveInstances();
+            partiesStarted[slot] = manager.getPartiesStarted();
+            partiesCompleted[slot] = manager.getPartiesCompleted();
+        } while (version != manager.getCounterVersion());
+
+        sampleCount++;
+    }
+
+    /**
+     * Returns the number of samples currently held in the ring buffers.
+     * Only meaningful after stop() has been called.
+     *
+     * @return The number of retained samples
+     */
+    public int getSampleCount() {
+        return (int) Math.min(sampleCount, capacity);
+    }
+
+    /**
+     * Writes the recorded samples to the given file.
+     * Files ending in ".csv" are written as CSV, anything else uses the columnar binary format.
+     * Must be called after stop().
+     *
+     * @param file The file to write
+     * @throws IOException If the file cannot be written
+     */
+    public void writeTo(Path file) throws IOException {
+        if (running) {
+            throw new IllegalStateException("Sampler must be stopped before writing");
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+            if (file.getFileName().toString().toLowerCase().endsWith(".csv")) {
+                writeCsv(channel, buffer);
+            } else {
+                writeColumnar(channel, buffer);
+            }
+
+            drain(channel, buffer);
+        }
+    }
+
+    /**
+     * Writes the samples as CSV, oldest first.
+     * Start and completion rates (per second) are derived from consecutive samples.
+     *
+     * @param channel The channel to write to
+     * @param buffer The write buffer
+     * @throws IOException If the file cannot be written
+     */
+    private void writeCsv(FileChannel channel, ByteBuffer buffer) throws IOException {
+        StringBuilder row = new StringBuilder(128);
+        row.append("elapsed_ms,tanks,healers,dps,active_instances,parties_started,parties_completed,start_rate,completion_rate\n");
+        putAscii(channel, buffer, row);
+
+        int rows = getSampleCount();
+        int first = firstSlot();
+        int previous = -1;
+
+        for (int i = 0; i < rows; i++) {
+            int slot = (first + i) % capacity;
+
+            double startRate = 0;
+            double completionRate = 0;
+            if (previous >= 0) {
+                double seconds = (elapsedNanos[slot] - elapsedNanos[previous]) / 1e9;
+                if (seconds > 0) {
+                    startRate = (partiesStarted[slot] - partiesStarted[previous]) / seconds;
+                    completionRate = (partiesCompleted[slot] - partiesCompleted[previous]) / seconds;
+                }
+            }
+
+            row.setLength(0);
+            row.append(elapsedNanos[slot] / 1_000_000L).append(',')
+               .append(tanks[slot]).append(',')
+               .append(healers[slot]).append(',')
+               .append(dps[slot]).append(',')
+               .append(activeInstances[slot]).append(',')
+               .append(partiesStarted[slot]).append(',')
+               .append(partiesCompleted[slot]).append(',')
+               .append(Math.round(startRate * 1000) / 1000.0).append(',')
+               .append(Math.round(completionRate * 1000) / 1000.0).append('\n');
+            putAscii(channel, buffer, row);
+
+            previous = slot;
+        }
+    }
+
+    /**
+     * Writes the samples in the columnar binary format (little-endian):
+     * magic, version, column count, row count, interval (ns), then each column
+     * stored contiguously, oldest sample first: elapsed ns (long), tanks, healers,
+     * DPS and active instances (int), parties started and completed (long).
+     *
+     * @param channel The channel to write to
+     * @param buffer The write buffer
+     * @throws IOException If the file cannot be written
+     */
+    private void writeColumnar(FileChannel channel, ByteBuffer buffer) throws IOException {
+        int rows = getSampleCount();
+        int first = firstSlot();
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(COLUMN_COUNT);
+        buffer.putInt(rows);
+        buffer.putLong(intervalNanos);
+
+        putLongColumn(channel, buffer, elapsedNanos, first, rows);
+        putIntColumn(channel, buffer, tanks, first, rows);
+        putIntColumn(channel, buffer, healers, first, rows);
+        putIntColumn(channel, buffer, dps, first, rows);
+        putIntColumn(channel, buffer, activeInstances, first, rows);
+        putLongColumn(channel, buffer, partiesStarted, first, rows);
+        putLongColumn(channel, buffer, partiesCompleted, first, rows);
+    }
+
+    /**
+     * Returns the ring buffer slot holding the oldest retained sample.
+     *
+     * @return The slot of the oldest sample
+     */
+    private int firstSlot() {
+        return sampleCount > capacity ? (int) (sampleCount % capacity) : 0;
+    }
+
+    /**
+     * Writes one int column, oldest sample first, draining the buffer whenever it fills up.
+     *
+     * @param channel The channel to write to
+     * @param buffer The write buffer
+     * @param column The ring buffer holding the column
+     * @param first The slot of the oldest sample
+     * @param rows The number of samples to write
+     * @throws IOException If the file cannot be written
+     */
+    private void putIntColumn(FileChannel channel, ByteBuffer buffer, int[] column, int first, int rows) throws IOException {
+        for (int i = 0; i < rows; i++) {
+            if (buffer.remaining() < Integer.BYTES) {
+                drain(channel, buffer);
+            }
+            buffer.putInt(column[(first + i) % capacity]);
+        }
+    }
+
+    /**
+     * Writes one long column, oldest sample first, draining the buffer whenever it fills up.
+     *
+     * @param channel The channel to write to
+     * @param buffer The write buffer
+     * @param column The ring buffer holding the column
+     * @param first The slot of the oldest sample
+     * @param rows The number of samples to write
+     * @throws IOException If the file cannot be written
+     */
+    private void putLongColumn(FileChannel channel, ByteBuffer buffer, long[] column, int first, int rows) throws IOException {
+        for (int i = 0; i < rows; i++) {
+            if (buffer.remaining() < Long.BYTES) {
+                drain(channel, buffer);
+            }
+            buffer.putLong(column[(first + i) % capacity]);
+        }
+    }
+
+    /**
+     * Writes ASCII text as single bytes, draining the buffer first if the text does not fit.
+     *
+     * @param channel The channel to write to
+     * @param buffer The write buffer
+     * @param text The text to write (one CSV row)
+     * @throws IOException If the file cannot be written
+     */
+    private void putAscii(FileChannel channel, ByteBuffer buffer, CharSequence text) throws IOException {
+        if (buffer.remaining() < text.length()) {
+            drain(channel, buffer);
+        }
+        for (int i = 0; i < text.length(); i++) {
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    /**
+     * Flushes everything in the buffer to the channel and clears it.
+     *
+     * @param channel The channel to write to
+     * @param buffer The write buffer
+     * @throws IOException If the file cannot be written
+     */
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,220 @@
+package com.lfg;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.lfg.TextFormatter.*;
+
+/**
+ * StressHarness class for checking DungeonManager under heavy concurrency.
+ * Each trial uses a randomized configuration and then races:
+ * - Many threads calling formParties() after random delays
+ * - A checker thread repeatedly verifying checkInvariants()
+ * - Snapshot readers verifying that published status snapshots are consistent and in order
+ *
+ * Most trials use a simulated second of a few milliseconds, so many runs start and complete. Every
+ * fourth trial (on average) uses a simulated second longer than formParties()' 500 ms re-poll,
+ * so runs outlast the poll and a missing completion wakeup cannot be hidden by it.
+ *
+ * The seed fixes each trial's configuration, the former-thread delays and the manager's completion
+ * times, so a failing seed replays the same workload. Thread interleavings are left to the OS
+ * scheduler (the checker and readers spin freely), so a race may need several replays to show again.
+ *
+ * A trial fails if any invariant is violated, if the parties do not all complete, if formable
+ * parties are left in the queue at the end, or if a free instance waited for a formable party
+ * longer than the completion re-form delay plus WAKEUP_MARGIN_MILLIS (a lost wakeup).
+ *
+ * Usage: StressHarness [trials] [seed]
+ */
+public class StressHarness {
+    private static final int FORMER_THREADS = 16;
+    private static final int READER_THREADS = 4;
+    private static final long COMPLETION_TIMEOUT_SECONDS = 60;
+    private static final long WAKEUP_MARGIN_MILLIS = 200;
+
+    /**
+     * The entry point of the harness. Exits with status 1 if any trial fails.
+     *
+     * @param args Optional number of trials (default 200) and random seed
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int trials = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+
+        System.out.println(formatHeader("DungeonManager Stress Harness") + " seed=" + seed);
+
+        Random random = new Random(seed);
+        int failures = 0;
+        for (int trial = 1; trial <= trials; trial++) {
+            List<String> problems = runTrial(random);
+            if (!problems.isEmpty()) {
+                failures++;
+                System.out.println(RED + "Trial " + trial + " failed:" + RESET);
+                for (String problem : problems) {
+                    System.out.println("- " + problem);
+                }
+            }
+        }
+
+        if (failures == 0) {
+            System.out.println(GREEN + "All " + trials + " trials passed" + RESET);
+            System.exit(0);
+        }
+        System.out.println(RED + failures + " of " + trials + " trials failed" + RESET);
+        System.exit(1);
+    }
+
+    /**
+     * Runs one randomized trial.
+     *
+     * @param random Source of the trial configuration, thread delays and manager seed
+     * @return The problems found, empty if the trial passed
+     */
+    private static List<String> runTrial(Random random) throws InterruptedException {
+        boolean slow = random.nextInt(4) == 0;
+        int instances;
+        int tanks;
+        int healers;
+        int dps;
+        int minTime;
+        int maxTime;
+        long millisPerSecond;
+        if (slow) {
+            // Runs of 500+ ms with more parties than instances, so re-forming depends on wakeups
+            instances = 1 + random.nextInt(3);
+            tanks = instances * (2 + random.nextInt(2));
+            healers = tanks + random.nextInt(2);
+            dps = tanks * 3 + random.nextInt(3);
+            minTime = 1;
+            maxTime = 1 + random.nextInt(2);
+            millisPerSecond = 500 + random.nextInt(200);
+        } else {
+            instances = 1 + random.nextInt(8);
+            tanks = random.nextInt(40);
+            healers = random.nextInt(40);
+            dps = random.nextInt(120);
+            minTime = 1 + random.nextInt(3);
+            maxTime = minTime + random.nextInt(3);
+            millisPerSecond = 1 + random.nextInt(5);
+        }
+
+        String config = "n=" + instances + " t=" + tanks + " h=" + healers + " d=" + dps
+                + " t1=" + minTime + " t2=" + maxTime + " unit=" + millisPerSecond + "ms";
+        List<String> problems = new ArrayList<>();
+        ConcurrentLinkedQueue<String> raced = new ConcurrentLinkedQueue<>();
+
+        DungeonManager manager = new DungeonManager(instances, minTime, maxTime, 1 + random.nextInt(instances));
+        manager.setOutput(new PrintStream(OutputStream.nullOutputStream()));
+        manager.setMillisPerSecond(millisPerSecond);
+        manager.setSeed(random.nextLong());
+        manager.queuePlayers(tanks, healers, dps);
+
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < FORMER_THREADS; i++) {
+            long delayMicros = random.nextInt(2000);
+            threads.add(new Thread(() -> {
+                awaitQuietly(go);
+                sleepMicros(delayMicros);
+                manager.formParties();
+            }));
+        }
+
+        // Checker and readers run until the trial is over
+        AtomicBoolean done = new AtomicBoolean();
+        Thread checker = new Thread(() -> {
+            while (!done.get()) {
+                raced.addAll(manager.checkInvariants());
+            }
+        });
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < READER_THREADS; i++) {
+            readers.add(new Thread(() -> {
+                long lastVersion = -1;
+                while (!done.get()) {
+                    InstanceStatusSnapshot snapshot = manager.getStatusSnapshot();
+                    if (snapshot.getVersion() < lastVersion) {
+                        raced.add("Snapshot version went backwards: " + lastVersion + " -> " + snapshot.getVersion());
+                    }
+                    lastVersion = snapshot.getVersion();
+                    if (snapshot.getTankCount() < 0 || snapshot.getHealerCount() < 0 || snapshot.getDpsCount() < 0) {
+                        raced.add("Snapshot shows a negative role count");
+                    }
+                    if (snapshot.getActiveInstances() > snapshot.getInstanceCount()) {
+                        raced.add("Snapshot shows more active instances than exist");
+                    }
+                }
+            }));
+        }
+
+        checker.start();
+        readers.forEach(Thread::start);
+        threads.forEach(Thread::start);
+        go.countDown();
+
+        if (!manager.awaitCompletion(COMPLETION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            problems.add("Not all parties completed within " + COMPLETION_TIMEOUT_SECONDS + " seconds");
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        done.set(true);
+        checker.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        raced.stream().distinct().forEach(problems::add);
+        problems.addAll(manager.checkInvariants());
+
+        long wakeupGapMillis = manager.getMaxWakeupGapNanos() / 1_000_000L;
+        if (wakeupGapMillis > DungeonManager.REFORM_DELAY_MILLIS + WAKEUP_MARGIN_MILLIS) {
+            problems.add("Lost wakeup: a free instance waited " + wakeupGapMillis + " ms for a formable party (limit "
+                    + (DungeonManager.REFORM_DELAY_MILLIS + WAKEUP_MARGIN_MILLIS) + " ms)");
+        }
+
+        int leftover = DungeonManager.maxParties(manager.getTankCount(), manager.getHealerCount(), manager.getDpsCount());
+        if (leftover > 0) {
+            problems.add(leftover + " formable parties left in the queue");
+        }
+
+        if (!problems.isEmpty()) {
+            problems.add(0, config);
+        }
+        return problems;
+    }
+
+    /**
+     * Waits for the latch to open, restoring the interrupt flag instead of throwing.
+     *
+     * @param latch The latch to wait for
+     */
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sleeps for the given time, restoring the interrupt flag instead of throwing.
+     *
+     * @param micros The time to sleep (in microseconds)
+     */
+    private static void sleepMicros(long micros) {
+        try {
+            TimeUnit.MICROSECONDS.sleep(micros);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.lfg;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Helper class for text formatting and console operations.
  * Provides methods for colored text output and console clearing.
+ * Role, dungeon, status, header and line renderings are cached on first use;
+ * set -Dlfg.render.cache=false to render on every call.
  */
 public class TextFormatter {
     // ANSI color codes
@@ -26,6 +30,42 @@ public class TextFormatter {
     public static final String TIME_COLOR = YELLOW;
     public static final String GUILD_MASTER_COLOR = CYAN;
     
+    // Rendering caches, keyed by the input text (or line length)
+    private static final ConcurrentHashMap<String, String> ROLE_CACHE = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, String> DUNGEON_CACHE = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, String> STATUS_CACHE = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, String> HEADER_CACHE = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer, String> LINE_CACHE = new ConcurrentHashMap<>();
+    
+    // Plain get/putIfAbsent below (no lambdas) keeps invokedynamic bootstraps off the startup path
+    private static final boolean CACHE_ENABLED = !"false".equals(System.getProperty("lfg.render.cache"));
+    
+    /**
+     * Looks up a cached rendering.
+     * 
+     * @param cache The cache for this kind of rendering
+     * @param key The input text (or line length)
+     * @return The cached rendering, or null if it is not cached or caching is disabled
+     */
+    private static <K> String cached(ConcurrentHashMap<K, String> cache, K key) {
+        return CACHE_ENABLED ? cache.get(key) : null;
+    }
+    
+    /**
+     * Caches a rendering, unless caching is disabled.
+     * 
+     * @param cache The cache for this kind of rendering
+     * @param key The input text (or line length)
+     * @param rendered The rendering of the key
+     * @return The rendering
+     */
+    private static <K> String remember(ConcurrentHashMap<K, String> cache, K key, String rendered) {
+        if (CACHE_ENABLED) {
+            cache.putIfAbsent(key, rendered);
+        }
+        return rendered;
+    }
+    
     /**
      * Formats text for tank role.
      * 
@@ -63,7 +103,8 @@ public class TextFormatter {
      * @return Formatted text with dungeon color
      */
     public static String formatDungeon(String text) {
-        return DUNGEON_COLOR + text + RESET;
+        String rendered = cached(DUNGEON_CACHE, text);
+        return rendered != null ? rendered : remember(DUNGEON_CACHE, text, DUNGEON_COLOR + text + RESET);
     }
     
     /**
@@ -93,11 +134,17 @@ public class TextFormatter {
      * @return Formatted role name
      */
     public static String formatRole(String role) {
-        if (role.toLowerCase().contains("tank")) {
+        String rendered = cached(ROLE_CACHE, role);
+        return rendered != null ? rendered : remember(ROLE_CACHE, role, renderRole(role));
+    }
+    
+    private static String renderRole(String role) {
+        String lowerCase = role.toLowerCase();
+        if (lowerCase.contains("tank")) {
             return formatTank(role);
-        } else if (role.toLowerCase().contains("heal")) {
+        } else if (lowerCase.contains("heal")) {
             return formatHealer(role);
-        } else if (role.toLowerCase().contains("dps")) {
+        } else if (lowerCase.contains("dps")) {
             return formatDPS(role);
         } else {
             return YELLOW + role + RESET;
@@ -111,6 +158,11 @@ public class TextFormatter {
      * @return Formatted status message
      */
     public static String formatStatus(String status) {
+        String rendered = cached(STATUS_CACHE, status);
+        return rendered != null ? rendered : remember(STATUS_CACHE, status, renderStatus(status));
+    }
+    
+    private static String renderStatus(String status) {
         if (status.toLowerCase().equals("active")) {
             return GREEN + status + RESET;
         } else if (status.toLowerCase().equals("empty")) {
@@ -126,7 +178,8 @@ public class TextFormatter {
      * @return Formatted header text
      */
     public static String formatHeader(String text) {
-        return CYAN + "== " + text + " ==" + RESET;
+        String rendered = cached(HEADER_CACHE, text);
+        return rendered != null ? rendered : remember(HEADER_CACHE, text, CYAN + "== " + text + " ==" + RESET);
     }
     
     /**
@@ -177,7 +230,8 @@ public class TextFormatter {
      * @return A formatted horizontal line
      */
     public static String horizontalLine(int length) {
-        return YELLOW + "+" + "-".repeat(length) + "+" + RESET;
+        String rendered = cached(LINE_CACHE, length);
+        return rendered != null ? rendered : remember(LINE_CACHE, length, YELLOW + "+" + "-".repeat(length) + "+" + RESET);
     }
 
     /**